@@ -0,0 +1,175 @@
+import java.io.PrintWriter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+public class Analytics {
+    private static final int SEGMENT = 1024; // Table slots scanned by a single fork-join task
+    private static final int CHUNK = 64 * SEGMENT; // Table slots whose report output is buffered before writing
+    private static final int BUCKETS = 33; // Follower histogram buckets: 0, then one per power of two
+
+    private final Manager manager; // Used to format per-user rankings exactly like sort_posts
+    private final CustomHashMap<String, User> users; // User table scanned in segments
+    private final CustomHashMap<String, Post> posts; // Post table scanned in segments
+    private final EntityStore store; // Columns backing the posts
+
+    public Analytics(Manager manager, CustomHashMap<String, User> users, CustomHashMap<String, Post> posts, EntityStore store) {
+        this.manager = manager;
+        this.users = users;
+        this.posts = posts;
+        this.store = store;
+    }
+
+    // Writes the sort_posts ranking of every user with posts and returns how many users were reported
+    public int streamSortedPosts(PrintWriter out) {
+        int reported = 0;
+        for (int start = 0; start < users.capacity(); start += CHUNK) {
+            int end = Math.min(start + CHUNK, users.capacity());
+            String[] blocks = new String[end - start];
+            ForkJoinPool.commonPool().invoke(new SortedPostsTask(start, end, start, blocks));
+            for (String block : blocks) { // Written in table order, so output is deterministic
+                if (block != null) {
+                    out.println(block);
+                    reported++;
+                }
+            }
+        }
+        return reported;
+    }
+
+    // Returns a histogram of follower counts bucketed by powers of two
+    public String followerDistribution() {
+        long[] histogram = ForkJoinPool.commonPool().invoke(new FollowerHistogramTask(0, users.capacity()));
+        StringBuilder log = new StringBuilder("Follower count distribution:");
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (histogram[bucket] == 0) continue;
+            long low = bucket == 0 ? 0 : 1L << (bucket - 1);
+            long high = bucket == 0 ? 0 : (1L << bucket) - 1;
+            log.append("\n").append(low == high ? Long.toString(low) : low + "-" + high)
+                    .append(" followers: ").append(histogram[bucket]).append(" users");
+        }
+        if (users.size() == 0) {
+            log.append("\nNo users.");
+        }
+        return log.toString();
+    }
+
+    // Returns the k most liked posts across all users, ordered like a feed
+    public String topPosts(int k) {
+        Post[] top = ForkJoinPool.commonPool().invoke(new TopPostsTask(0, posts.capacity(), k));
+        StringBuilder log = new StringBuilder("Top " + k + " posts:");
+        for (Post post : top) {
+            log.append("\nPost ID: ").append(post.getPostId())
+                    .append(", Author: ").append(post.getAuthorUsername())
+                    .append(", Likes: ").append(post.getLikeCount());
+        }
+        if (top.length < k) {
+            log.append("\nNo more posts available.");
+        }
+        return log.toString();
+    }
+
+    // Formats the rankings of users in table slots [lo, hi) into their positions in blocks
+    private class SortedPostsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L; // Tasks are never serialized, but ForkJoinTask is Serializable
+        private final int lo;
+        private final int hi;
+        private final int base; // Table slot stored at blocks[0]
+        private final String[] blocks;
+
+        SortedPostsTask(int lo, int hi, int base, String[] blocks) {
+            this.lo = lo;
+            this.hi = hi;
+            this.base = base;
+            this.blocks = blocks;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > SEGMENT) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new SortedPostsTask(lo, mid, base, blocks), new SortedPostsTask(mid, hi, base, blocks));
+                return;
+            }
+            for (int slot = lo; slot < hi; slot++) {
+                User user = users.valueAt(slot);
+                if (user != null && !user.getPosts().isEmpty()) {
+                    blocks[slot - base] = manager.sortPosts(user);
+                }
+            }
+        }
+    }
+
+    // Counts users per follower bucket in table slots [lo, hi), merging the halves' histograms
+    private class FollowerHistogramTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+        private final int lo;
+        private final int hi;
+
+        FollowerHistogramTask(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hi - lo > SEGMENT) {
+                int mid = (lo + hi) >>> 1;
+                FollowerHistogramTask left = new FollowerHistogramTask(lo, mid);
+                left.fork();
+                long[] right = new FollowerHistogramTask(mid, hi).compute();
+                long[] merged = left.join();
+                for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                    merged[bucket] += right[bucket];
+                }
+                return merged;
+            }
+            long[] histogram = new long[BUCKETS];
+            for (int slot = lo; slot < hi; slot++) {
+                User user = users.valueAt(slot);
+                if (user != null) {
+                    int followers = user.getFollowers().size();
+                    histogram[32 - Integer.numberOfLeadingZeros(followers)]++; // Bit length picks the bucket
+                }
+            }
+            return histogram;
+        }
+    }
+
+    // Finds the k best posts in table slots [lo, hi), merging the halves' partial top lists
+    private class TopPostsTask extends RecursiveTask<Post[]> {
+        private static final long serialVersionUID = 1L;
+        private final int lo;
+        private final int hi;
+        private final int k;
+
+        TopPostsTask(int lo, int hi, int k) {
+            this.lo = lo;
+            this.hi = hi;
+            this.k = k;
+        }
+
+        @Override
+        protected Post[] compute() {
+            if (hi - lo > SEGMENT) {
+                int mid = (lo + hi) >>> 1;
+                TopPostsTask left = new TopPostsTask(lo, mid, k);
+                left.fork();
+                Post[] right = new TopPostsTask(mid, hi, k).compute();
+                Post[] leftTop = left.join();
+                CustomPriorityQueue merge = new CustomPriorityQueue(store, leftTop.length + right.length);
+                for (Post post : leftTop) merge.addCandidate(post);
+                for (Post post : right) merge.addCandidate(post);
+                return merge.topK(k);
+            }
+            CustomPriorityQueue segment = new CustomPriorityQueue(store, hi - lo);
+            for (int slot = lo; slot < hi; slot++) {
+                Post post = posts.valueAt(slot);
+                if (post != null) {
+                    segment.addCandidate(post);
+                }
+            }
+            return segment.topK(k);
+        }
+    }
+}
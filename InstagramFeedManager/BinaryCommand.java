@@ -0,0 +1,182 @@
+public class BinaryCommand {
+    // Opcodes of the binary command format; RAW carries a line that has no compact encoding
+    public static final int RAW = 0;
+    public static final int CREATE_USER = 1;
+    public static final int FOLLOW_USER = 2;
+    public static final int UNFOLLOW_USER = 3;
+    public static final int CREATE_POST = 4;
+    public static final int SEE_POST = 5;
+    public static final int SEE_ALL_POSTS_FROM_USER = 6;
+    public static final int TOGGLE_LIKE = 7;
+    public static final int GENERATE_FEED = 8;
+    public static final int SCROLL_THROUGH_FEED = 9;
+    public static final int SORT_POSTS = 10;
+    public static final int SUGGEST_FOLLOWS = 11;
+    public static final int TRENDING = 12;
+    public static final int LINE_END = 13; // Not a command: sets the terminator of the lines that follow
+
+    // Line terminators indexed by LINE_END kind; the empty one marks a last line that has no terminator
+    static final String[] LINE_ENDS = {"\n", "\r\n", "\r", "\u2028", "\u2029", "\u0085", ""};
+
+    // Command names indexed by opcode
+    private static final String[] NAMES = {
+            null, "create_user", "follow_user", "unfollow_user", "create_post", "see_post",
+            "see_all_posts_from_user", "toggle_like", "generate_feed", "scroll_through_feed",
+            "sort_posts", "suggest_follows", "trending"
+    };
+
+    // Fields are reused from one command to the next; which ones are set depends on the opcode
+    public int opcode;
+    public String firstId; // Acting or first user ID
+    public String secondId; // Second user ID or post ID
+    public String text; // Post content for CREATE_POST, the whole line for RAW
+    public int firstNumber; // Post count, k, or trending k
+    public int secondNumber; // Trending window
+    public boolean[] flags = new boolean[16]; // Like flags of SCROLL_THROUGH_FEED
+    public int flagCount; // Number of like flags present on the line
+    public String lineEnd = "\n"; // Terminator that followed the line in the text file
+
+    // Fills this command from a text line, falling back to RAW unless the line is exactly reproducible
+    public void parse(String line) {
+        if (!line.equals(line.trim()) || !parseStructured(line) || !toText().equals(line)) {
+            opcode = RAW;
+            text = line;
+        }
+    }
+
+    // Tries to read the line as one of the compact commands
+    private boolean parseStructured(String line) {
+        int space = line.indexOf(' ');
+        opcode = opcodeOf(space < 0 ? line : line.substring(0, space));
+        if (opcode == RAW) return false;
+
+        String[] parts = line.split(" ", opcode == CREATE_POST ? 4 : -1);
+        for (int i = 0; i < (opcode == CREATE_POST ? 3 : parts.length); i++) {
+            if (!isPlainToken(parts[i])) return false; // Odd spacing is kept verbatim
+        }
+        switch (opcode) {
+            case CREATE_USER:
+            case SORT_POSTS:
+                if (parts.length != 2) return false;
+                firstId = parts[1];
+                return true;
+            case FOLLOW_USER:
+            case UNFOLLOW_USER:
+            case SEE_POST:
+            case SEE_ALL_POSTS_FROM_USER:
+            case TOGGLE_LIKE:
+                if (parts.length != 3) return false;
+                firstId = parts[1];
+                secondId = parts[2];
+                return true;
+            case CREATE_POST:
+                if (parts.length != 4) return false;
+                firstId = parts[1];
+                secondId = parts[2];
+                text = parts[3];
+                return true;
+            case GENERATE_FEED:
+            case SUGGEST_FOLLOWS:
+                if (parts.length != 3) return false;
+                firstId = parts[1];
+                firstNumber = parseCount(parts[2]);
+                return firstNumber >= 0;
+            case TRENDING:
+                if (parts.length != 3) return false;
+                firstNumber = parseCount(parts[1]);
+                secondNumber = parseCount(parts[2]);
+                return firstNumber >= 0 && secondNumber >= 0;
+            case SCROLL_THROUGH_FEED:
+                if (parts.length < 3) return false;
+                firstId = parts[1];
+                firstNumber = parseCount(parts[2]);
+                if (firstNumber < 0) return false;
+                flagCount = 0;
+                for (int i = 3; i < parts.length; i++) {
+                    if (!parts[i].equals("0") && !parts[i].equals("1")) return false;
+                    addFlag(parts[i].equals("1"));
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // Checks that a token is non-empty and free of whitespace, so every parser in Main splits it the same way
+    private static boolean isPlainToken(String token) {
+        if (token.isEmpty()) return false;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c <= ' ' || Character.isWhitespace(c) || Character.isSpaceChar(c)) return false;
+        }
+        return true;
+    }
+
+    // Parses a non-negative decimal number, or returns -1 if it is not in canonical form
+    private static int parseCount(String token) {
+        try {
+            int value = Integer.parseInt(token);
+            return value >= 0 && Integer.toString(value).equals(token) ? value : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Appends a like flag, growing the flag array if needed
+    public void addFlag(boolean flag) {
+        if (flagCount == flags.length) {
+            boolean[] larger = new boolean[2 * flags.length];
+            System.arraycopy(flags, 0, larger, 0, flagCount);
+            flags = larger;
+        }
+        flags[flagCount++] = flag;
+    }
+
+    // Rebuilds the exact text line this command was parsed from
+    public String toText() {
+        if (opcode == RAW) return text;
+        StringBuilder line = new StringBuilder(NAMES[opcode]);
+        switch (opcode) {
+            case CREATE_USER:
+            case SORT_POSTS:
+                line.append(' ').append(firstId);
+                break;
+            case CREATE_POST:
+                line.append(' ').append(firstId).append(' ').append(secondId).append(' ').append(text);
+                break;
+            case GENERATE_FEED:
+            case SUGGEST_FOLLOWS:
+                line.append(' ').append(firstId).append(' ').append(firstNumber);
+                break;
+            case TRENDING:
+                line.append(' ').append(firstNumber).append(' ').append(secondNumber);
+                break;
+            case SCROLL_THROUGH_FEED:
+                line.append(' ').append(firstId).append(' ').append(firstNumber);
+                for (int i = 0; i < flagCount; i++) {
+                    line.append(flags[i] ? " 1" : " 0");
+                }
+                break;
+            default:
+                line.append(' ').append(firstId).append(' ').append(secondId);
+                break;
+        }
+        return line.toString();
+    }
+
+    // Maps a line terminator to its LINE_END kind
+    static int lineEndKind(String lineEnd) {
+        for (int i = 0; i < LINE_ENDS.length; i++) {
+            if (LINE_ENDS[i].equals(lineEnd)) return i;
+        }
+        throw new IllegalArgumentException("Unknown line terminator");
+    }
+
+    // Maps a command name to its opcode, RAW when unknown
+    private static int opcodeOf(String name) {
+        for (int i = 1; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) return i;
+        }
+        return RAW;
+    }
+}
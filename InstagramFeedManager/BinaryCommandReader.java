@@ -0,0 +1,168 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+public class BinaryCommandReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16; // Bytes fetched from the channel per read
+
+    private final ReadableByteChannel channel; // Source of the encoded records
+    private final ArrayList<String> internedIds; // IDs in the order they were first written
+    private ByteBuffer buffer; // Read buffer, kept in read mode between records
+    private boolean endOfInput; // True once the channel has no more bytes
+    private String lineEnd = "\n"; // Terminator set by the last LINE_END record
+
+    // Creates a reader and checks the file header
+    public BinaryCommandReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        this.internedIds = new ArrayList<>();
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip(); // Start empty, in read mode
+
+        byte[] magic = BinaryCommandWriter.MAGIC;
+        if (!fill(magic.length)) throw new IOException("Not a binary command file");
+        for (byte expected : magic) {
+            if (buffer.get() != expected) throw new IOException("Not a binary command file");
+        }
+    }
+
+    // Decodes the next command into the command, returning false at the end of the input
+    public boolean next(BinaryCommand command) throws IOException {
+        while (readRecord(command)) {
+            if (command.opcode != BinaryCommand.LINE_END) {
+                command.lineEnd = lineEnd;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Decodes the next record, which may be a LINE_END record, returning false at the end of the input
+    private boolean readRecord(BinaryCommand command) throws IOException {
+        if (!fill(1)) return false;
+
+        // Buffer the whole record before decoding it
+        int lengthBytes = 1;
+        while (true) {
+            if (!fill(lengthBytes)) throw new EOFException("Truncated record length");
+            if ((buffer.get(buffer.position() + lengthBytes - 1) & 0x80) == 0) break;
+            lengthBytes++;
+        }
+        int length = readVarint();
+        if (!fill(length)) throw new EOFException("Truncated record");
+        int end = buffer.position() + length;
+
+        command.opcode = buffer.get() & 0xff;
+        switch (command.opcode) {
+            case BinaryCommand.RAW:
+                command.text = readString();
+                break;
+            case BinaryCommand.CREATE_USER:
+            case BinaryCommand.SORT_POSTS:
+                command.firstId = readId();
+                break;
+            case BinaryCommand.CREATE_POST:
+                command.firstId = readId();
+                command.secondId = readId();
+                command.text = readString();
+                break;
+            case BinaryCommand.GENERATE_FEED:
+            case BinaryCommand.SUGGEST_FOLLOWS:
+                command.firstId = readId();
+                command.firstNumber = readVarint();
+                break;
+            case BinaryCommand.TRENDING:
+                command.firstNumber = readVarint();
+                command.secondNumber = readVarint();
+                break;
+            case BinaryCommand.SCROLL_THROUGH_FEED:
+                command.firstId = readId();
+                command.firstNumber = readVarint();
+                int flagCount = readVarint();
+                command.flagCount = 0;
+                int packed = 0;
+                for (int i = 0; i < flagCount; i++) {
+                    if (i % 8 == 0) packed = buffer.get();
+                    command.addFlag((packed & (1 << (i % 8))) != 0);
+                }
+                break;
+            case BinaryCommand.LINE_END:
+                int kind = readVarint();
+                if (kind >= BinaryCommand.LINE_ENDS.length) throw new IOException("Unknown line terminator " + kind);
+                lineEnd = BinaryCommand.LINE_ENDS[kind];
+                break;
+            case BinaryCommand.FOLLOW_USER:
+            case BinaryCommand.UNFOLLOW_USER:
+            case BinaryCommand.SEE_POST:
+            case BinaryCommand.SEE_ALL_POSTS_FROM_USER:
+            case BinaryCommand.TOGGLE_LIKE:
+                command.firstId = readId();
+                command.secondId = readId();
+                break;
+            default:
+                throw new IOException("Unknown opcode " + command.opcode);
+        }
+        if (buffer.position() != end) throw new IOException("Malformed record for opcode " + command.opcode);
+        return true;
+    }
+
+    // Makes sure at least count unread bytes are buffered, returning false if the input ends first
+    private boolean fill(int count) throws IOException {
+        if (buffer.remaining() >= count) return true;
+        if (count > buffer.capacity()) { // Record larger than the buffer
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), count));
+            larger.put(buffer);
+            larger.flip();
+            buffer = larger;
+        }
+        buffer.compact(); // Switch to write mode, keeping unread bytes
+        try {
+            while (buffer.position() < count && !endOfInput) {
+                if (channel.read(buffer) < 0) endOfInput = true;
+            }
+        } finally {
+            buffer.flip();
+        }
+        return buffer.remaining() >= count;
+    }
+
+    // Reads an interned ID: 0 introduces a new ID, any other value is a table index plus one
+    private String readId() throws IOException {
+        int index = readVarint();
+        if (index == 0) {
+            String id = readString();
+            internedIds.add(id);
+            return id;
+        }
+        if (index > internedIds.size()) throw new IOException("Unknown ID reference " + index);
+        return internedIds.get(index - 1);
+    }
+
+    // Reads a UTF-8 string prefixed with its byte length
+    private String readString() {
+        int length = readVarint();
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    // Reads a non-negative int encoded seven bits at a time, low bits first
+    private int readVarint() {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
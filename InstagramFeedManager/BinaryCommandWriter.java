@@ -0,0 +1,138 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class BinaryCommandWriter implements AutoCloseable {
+    static final byte[] MAGIC = {'I', 'F', 'M', 'B', 2}; // File signature followed by the format version
+
+    private final OutputStream out; // Destination of the encoded records
+    private final CustomHashMap<String, Integer> internedIds; // IDs already written, mapped to their table index
+    private byte[] record; // Scratch space for the record being encoded
+    private final byte[] prefix = new byte[5]; // Scratch space for the varint length prefix
+    private int length; // Bytes used in the scratch space
+    private String lineEnd = "\n"; // Terminator currently in effect for readers
+
+    // Creates a writer and emits the file header
+    public BinaryCommandWriter(OutputStream out) throws IOException {
+        this.out = out;
+        this.internedIds = new CustomHashMap<>();
+        this.record = new byte[256];
+        out.write(MAGIC);
+    }
+
+    // Encodes one command as a length-prefixed record
+    public void write(BinaryCommand command) throws IOException {
+        if (!command.lineEnd.equals(lineEnd)) { // Only changes of terminator cost a record
+            length = 0;
+            writeByte(BinaryCommand.LINE_END);
+            writeVarint(BinaryCommand.lineEndKind(command.lineEnd));
+            emit();
+            lineEnd = command.lineEnd;
+        }
+
+        length = 0;
+        writeByte(command.opcode);
+        switch (command.opcode) {
+            case BinaryCommand.RAW:
+                writeString(command.text);
+                break;
+            case BinaryCommand.CREATE_USER:
+            case BinaryCommand.SORT_POSTS:
+                writeId(command.firstId);
+                break;
+            case BinaryCommand.CREATE_POST:
+                writeId(command.firstId);
+                writeId(command.secondId);
+                writeString(command.text);
+                break;
+            case BinaryCommand.GENERATE_FEED:
+            case BinaryCommand.SUGGEST_FOLLOWS:
+                writeId(command.firstId);
+                writeVarint(command.firstNumber);
+                break;
+            case BinaryCommand.TRENDING:
+                writeVarint(command.firstNumber);
+                writeVarint(command.secondNumber);
+                break;
+            case BinaryCommand.SCROLL_THROUGH_FEED:
+                writeId(command.firstId);
+                writeVarint(command.firstNumber);
+                writeVarint(command.flagCount);
+                for (int i = 0; i < command.flagCount; i += 8) { // Eight like flags per byte, lowest bit first
+                    int packed = 0;
+                    for (int bit = 0; bit < 8 && i + bit < command.flagCount; bit++) {
+                        if (command.flags[i + bit]) packed |= 1 << bit;
+                    }
+                    writeByte(packed);
+                }
+                break;
+            default:
+                writeId(command.firstId);
+                writeId(command.secondId);
+                break;
+        }
+        emit();
+    }
+
+    // Writes the record in the scratch space, prefixed with its length so readers can buffer whole records
+    private void emit() throws IOException {
+        int prefixLength = 0;
+        int value = length;
+        while ((value & ~0x7f) != 0) {
+            prefix[prefixLength++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        prefix[prefixLength++] = (byte) value;
+        out.write(prefix, 0, prefixLength);
+        out.write(record, 0, length);
+    }
+
+    // Writes an ID as 0 plus its text the first time, then as its table index plus one
+    private void writeId(String id) {
+        Integer index = internedIds.get(id);
+        if (index != null) {
+            writeVarint(index + 1);
+        } else {
+            internedIds.put(id, internedIds.size());
+            writeVarint(0);
+            writeString(id);
+        }
+    }
+
+    // Writes a UTF-8 string prefixed with its byte length
+    private void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, record, length, bytes.length);
+        length += bytes.length;
+    }
+
+    // Writes a non-negative int seven bits at a time, low bits first
+    private void writeVarint(int value) {
+        while ((value & ~0x7f) != 0) {
+            writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        record[length++] = (byte) value;
+    }
+
+    // Grows the scratch space so that extra more bytes fit
+    private void ensureCapacity(int extra) {
+        if (length + extra > record.length) {
+            byte[] larger = new byte[Math.max(2 * record.length, length + extra)];
+            System.arraycopy(record, 0, larger, 0, length);
+            record = larger;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -109,6 +109,17 @@ public class CustomHashMap<K, V> {
         return size;
     }
 
+    // Returns the number of slots in the table, for scanning it in segments
+    public int capacity() {
+        return table.length;
+    }
+
+    // Returns the value stored in a table slot, or null if the slot is empty or removed
+    public V valueAt(int slot) {
+        Entry<K, V> entry = table[slot];
+        return entry != null && entry.isActive ? entry.value : null;
+    }
+
     // Retrieves a list of all active keys
     public ArrayList<K> keys() {
         ArrayList<K> keyList = new ArrayList<>();
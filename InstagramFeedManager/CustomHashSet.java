@@ -128,4 +128,9 @@ public class CustomHashSet<T> implements Iterable<T> {
     public boolean isEmpty() {
         return size == 0;
     }
+
+    // Returns the number of elements in the set
+    public int size() {
+        return size;
+    }
 }
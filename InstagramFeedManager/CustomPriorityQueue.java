@@ -1,83 +1,134 @@
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public class CustomPriorityQueue {
-    private List<Post> heap; // List to store the elements of the heap
+    private static final int ARITY = 4; // Children per node; four packed keys share a cache line
 
-    // Constructor initializes the heap as an empty ArrayList
-    public CustomPriorityQueue() {
-        heap = new ArrayList<>();
+    private EntityStore store; // Columns the keys are packed from
+    private long[] heap; // Packed keys: like count in the high half, post ordinal in the low half
+    private int size; // Number of keys in the heap
+    private boolean ordered; // False while candidates are collected without heap order
+
+    // Constructor initializes an empty heap
+    public CustomPriorityQueue(EntityStore store) {
+        this(store, 16);
+    }
+
+    // Constructor with an expected number of posts, avoiding growth during bulk loads
+    public CustomPriorityQueue(EntityStore store, int capacity) {
+        this.store = store;
+        this.heap = new long[Math.max(1, capacity)];
+        this.ordered = true;
+    }
+
+    // Packs a post's like count and ordinal so most comparisons are a single long comparison
+    private long key(Post post) {
+        int ordinal = post.getOrdinal();
+        return ((long) store.getLikeCount(ordinal) << 32) | ordinal;
     }
 
-    // Adds a new post to the priority queue
+    // Checks if key a ranks above key b: more likes first, then the larger post ID
+    private boolean higher(long a, long b) {
+        if ((a >>> 32) != (b >>> 32)) {
+            return a > b; // Like counts differ, and they dominate the packed value
+        }
+        return store.compareIds((int) a, (int) b) > 0; // Only ties on likes look at IDs
+    }
+
+    // Adds a new post to the priority queue, keeping heap order
     public void add(Post post) {
-        heap.add(post); // Add the new post to the end of the list
-        int currentIndex = heap.size() - 1; // Start with the last element added
-        // Bubble up the added element to maintain heap property
-        while (currentIndex > 0) {
-            int parentIndex = (currentIndex - 1) / 2; // Find the parent's index
-            // Compare the current post with its parent; bubble up if necessary
-            if (compare(heap.get(currentIndex), heap.get(parentIndex)) > 0) {
-                swap(currentIndex, parentIndex); // Swap if current is greater than parent
-                currentIndex = parentIndex; // Move up to the parent
-            } else {
-                break; // If not greater, stop the loop
-            }
+        if (!ordered) heapify(); // Restore order before mixing in incremental inserts
+        ensureCapacity();
+        heap[size] = key(post); // Add the new key to the end of the array
+        siftUp(size++);
+    }
+
+    // Appends a candidate without ordering it; call heapify (or poll/topK) once all are collected
+    public void addCandidate(Post post) {
+        ensureCapacity();
+        heap[size++] = key(post);
+        ordered = false;
+    }
+
+    // Builds heap order bottom-up over all collected candidates in O(n)
+    public void heapify() {
+        for (int i = (size - 2) / ARITY; i >= 0; i--) {
+            siftDown(i);
         }
+        ordered = true;
     }
 
     // Removes and returns the highest priority post from the priority queue
     public Post poll() {
-        if (heap.isEmpty()) return null; // If the heap is empty, return null
-        Post result = heap.get(0); // Get the root of the heap
-        Post lastItem = heap.remove(heap.size() - 1); // Remove the last item
-        if (!heap.isEmpty()) {
-            heap.set(0, lastItem); // Set the last item as the new root
-            heapify(0); // Heapify from the root down to maintain heap property
+        if (size == 0) return null; // If the heap is empty, return null
+        if (!ordered) heapify();
+        long result = heap[0]; // Get the root of the heap
+        long lastItem = heap[--size]; // Remove the last item
+        if (size > 0) {
+            heap[0] = lastItem; // Set the last item as the new root
+            siftDown(0); // Restore heap order from the root down
         }
-        return result; // Return the original root
+        return post(result);
     }
 
-    // Helper method to reorganize the heap from a given index down to maintain the heap property
-    private void heapify(int index) {
-        int largest = index; // Start with the current index as the largest
-        int leftIndex = 2 * index + 1; // Calculate left child index
-        int rightIndex = 2 * index + 2; // Calculate right child index
+    // Removes and returns the k highest priority posts in order, or all of them if fewer remain
+    public Post[] topK(int k) {
+        if (!ordered) heapify();
+        Post[] result = new Post[Math.max(0, Math.min(k, size))];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = poll(); // Only k pops, so the cost is O(n + k log n) rather than a full sort
+        }
+        return result;
+    }
 
-        // Compare the current node with its left child
-        if (leftIndex < heap.size() && compare(heap.get(leftIndex), heap.get(largest)) > 0) {
-            largest = leftIndex;
+    // Moves a key up until its parent ranks higher
+    private void siftUp(int index) {
+        long item = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / ARITY;
+            if (!higher(item, heap[parent])) break;
+            heap[index] = heap[parent]; // Shift the parent down instead of swapping
+            index = parent;
         }
-        // Compare the current (or left child) with the right child
-        if (rightIndex < heap.size() && compare(heap.get(rightIndex), heap.get(largest)) > 0) {
-            largest = rightIndex;
+        heap[index] = item;
+    }
+
+    // Moves a key down below any higher ranking child
+    private void siftDown(int index) {
+        long item = heap[index];
+        while (true) {
+            int first = ARITY * index + 1;
+            if (first >= size) break;
+            int last = Math.min(first + ARITY, size);
+            int largest = first;
+            for (int child = first + 1; child < last; child++) {
+                if (higher(heap[child], heap[largest])) largest = child;
+            }
+            if (!higher(heap[largest], item)) break;
+            heap[index] = heap[largest]; // Shift the child up instead of swapping
+            index = largest;
         }
+        heap[index] = item;
+    }
 
-        // If the largest is not the current index, swap and continue heapifying
-        if (largest != index) {
-            swap(index, largest);
-            heapify(largest);
+    // Grows the backing array when it is full
+    private void ensureCapacity() {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, 2 * heap.length);
         }
     }
 
-    // Swaps two elements in the heap
-    private void swap(int i, int j) {
-        Post temp = heap.get(i);
-        heap.set(i, heap.get(j));
-        heap.set(j, temp);
+    // Recovers the post from the ordinal in the low half of a key
+    private Post post(long key) {
+        return store.getPost((int) key);
     }
 
-    // Compares two posts based on like count and post ID
-    private int compare(Post p1, Post p2) {
-        // Compare based on like count; if equal, compare by post ID
-        if (p1.getLikeCount() != p2.getLikeCount()) {
-            return p1.getLikeCount() > p2.getLikeCount() ? 1 : -1;
-        }
-        return p1.getPostId().compareTo(p2.getPostId());
+    // Returns the number of posts in the queue
+    public int size() {
+        return size;
     }
 
     // Checks if the priority queue is empty
     public boolean isEmpty() {
-        return heap.isEmpty();
+        return size == 0;
     }
 }
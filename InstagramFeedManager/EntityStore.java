@@ -0,0 +1,178 @@
+import java.util.Arrays;
+
+public class EntityStore {
+    private static final int INITIAL_CAPACITY = 16; // Initial capacity of every column
+    private static final int MIN_RERANK_BATCH = 1024; // Fewest unranked posts that trigger a re-rank
+
+    // Post columns, indexed by dense post ordinal
+    private String[] postIds; // Post identifiers
+    private String[] contents; // Post text
+    private int[] likeCounts; // Number of likes per post
+    private int[] authorOrdinals; // Ordinal of the authoring user
+    private int[] idRanks; // Position of the post ID in ascending string order
+    private Post[] postViews; // Lightweight Post objects handed out to callers
+    private int postCount;
+
+    // Rank maintenance: posts with ordinal < rankedCount have an idRank; newer posts are compared by ID
+    // until enough of them pile up to merge them in, so each post's share of re-ranking stays constant
+    private int[] ordinalsByRank;
+    private int rankedCount;
+
+    // User columns, indexed by dense user ordinal
+    private String[] userIds; // User identifiers
+    private User[] userViews; // Lightweight User objects handed out to callers
+    private int userCount;
+
+    public EntityStore() {
+        postIds = new String[INITIAL_CAPACITY];
+        contents = new String[INITIAL_CAPACITY];
+        likeCounts = new int[INITIAL_CAPACITY];
+        authorOrdinals = new int[INITIAL_CAPACITY];
+        idRanks = new int[INITIAL_CAPACITY];
+        postViews = new Post[INITIAL_CAPACITY];
+        ordinalsByRank = new int[INITIAL_CAPACITY];
+        userIds = new String[INITIAL_CAPACITY];
+        userViews = new User[INITIAL_CAPACITY];
+    }
+
+    // Appends a user row and returns its view
+    public User createUser(String userId) {
+        if (userCount == userIds.length) {
+            int newCapacity = 2 * userIds.length;
+            userIds = Arrays.copyOf(userIds, newCapacity);
+            userViews = Arrays.copyOf(userViews, newCapacity);
+        }
+        int ordinal = userCount++;
+        userIds[ordinal] = userId;
+        userViews[ordinal] = new User(this, ordinal);
+        return userViews[ordinal];
+    }
+
+    // Appends a post row and returns its view
+    public Post createPost(String postId, String content, User author) {
+        if (postCount == postIds.length) {
+            int newCapacity = 2 * postIds.length;
+            postIds = Arrays.copyOf(postIds, newCapacity);
+            contents = Arrays.copyOf(contents, newCapacity);
+            likeCounts = Arrays.copyOf(likeCounts, newCapacity);
+            authorOrdinals = Arrays.copyOf(authorOrdinals, newCapacity);
+            idRanks = Arrays.copyOf(idRanks, newCapacity);
+            postViews = Arrays.copyOf(postViews, newCapacity);
+            ordinalsByRank = Arrays.copyOf(ordinalsByRank, newCapacity);
+        }
+        int ordinal = postCount++;
+        postIds[ordinal] = postId;
+        contents[ordinal] = content;
+        authorOrdinals[ordinal] = author.getOrdinal();
+        postViews[ordinal] = new Post(this, ordinal);
+        if (postCount - rankedCount >= Math.max(MIN_RERANK_BATCH, rankedCount / 4)) {
+            refreshRanks(); // Batch is a constant fraction of the ranked posts, so the cost amortizes
+        }
+        return postViews[ordinal];
+    }
+
+    // Merges posts created since the last re-rank into idRanks
+    private void refreshRanks() {
+        // Sort only the new ordinals, then merge them into the already ranked prefix
+        int[] fresh = new int[postCount - rankedCount];
+        for (int i = 0; i < fresh.length; i++) {
+            fresh[i] = rankedCount + i;
+        }
+        sortByPostId(fresh, new int[fresh.length], 0, fresh.length);
+
+        int[] merged = new int[ordinalsByRank.length];
+        int i = 0, j = 0, k = 0;
+        while (i < rankedCount && j < fresh.length) {
+            if (postIds[ordinalsByRank[i]].compareTo(postIds[fresh[j]]) <= 0) {
+                merged[k++] = ordinalsByRank[i++];
+            } else {
+                merged[k++] = fresh[j++];
+            }
+        }
+        while (i < rankedCount) merged[k++] = ordinalsByRank[i++];
+        while (j < fresh.length) merged[k++] = fresh[j++];
+
+        ordinalsByRank = merged;
+        rankedCount = postCount;
+        for (int rank = 0; rank < rankedCount; rank++) {
+            idRanks[ordinalsByRank[rank]] = rank;
+        }
+    }
+
+    // Merge sort of post ordinals by post ID
+    private void sortByPostId(int[] ordinals, int[] scratch, int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        sortByPostId(ordinals, scratch, from, mid);
+        sortByPostId(ordinals, scratch, mid, to);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            if (postIds[ordinals[i]].compareTo(postIds[ordinals[j]]) <= 0) {
+                scratch[k++] = ordinals[i++];
+            } else {
+                scratch[k++] = ordinals[j++];
+            }
+        }
+        while (i < mid) scratch[k++] = ordinals[i++];
+        while (j < to) scratch[k++] = ordinals[j++];
+        System.arraycopy(scratch, from, ordinals, from, to - from);
+    }
+
+    // Increments the like count of a post
+    public void incrementLikes(int postOrdinal) {
+        likeCounts[postOrdinal]++;
+    }
+
+    // Decrements the like count of a post
+    public void decrementLikes(int postOrdinal) {
+        likeCounts[postOrdinal]--;
+    }
+
+    // Column accessors for posts
+
+    public String getPostId(int postOrdinal) {
+        return postIds[postOrdinal];
+    }
+
+    public String getContent(int postOrdinal) {
+        return contents[postOrdinal];
+    }
+
+    public int getLikeCount(int postOrdinal) {
+        return likeCounts[postOrdinal];
+    }
+
+    public int getAuthorOrdinal(int postOrdinal) {
+        return authorOrdinals[postOrdinal];
+    }
+
+    // Compares two posts by ID, using the precomputed ranks when both posts have one
+    public int compareIds(int postOrdinal1, int postOrdinal2) {
+        if (postOrdinal1 < rankedCount && postOrdinal2 < rankedCount) {
+            return Integer.compare(idRanks[postOrdinal1], idRanks[postOrdinal2]);
+        }
+        return postIds[postOrdinal1].compareTo(postIds[postOrdinal2]);
+    }
+
+    public Post getPost(int postOrdinal) {
+        return postViews[postOrdinal];
+    }
+
+    public int getPostCount() {
+        return postCount;
+    }
+
+    // Column accessors for users
+
+    public String getUserId(int userOrdinal) {
+        return userIds[userOrdinal];
+    }
+
+    public User getUser(int userOrdinal) {
+        return userViews[userOrdinal];
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+}
@@ -0,0 +1,35 @@
+import java.io.PrintWriter;
+
+// Commands understood by Main; the reference implementation is Manager, alternatives can be shadow-tested against it
+public interface FeedEngine {
+    String createUser(String userId);
+
+    String followUser(String userId1, String userId2);
+
+    String unfollowUser(String userId1, String userId2);
+
+    String createPost(String userId, String postId, String content);
+
+    String seePost(String userId, String postId);
+
+    String seeAllPostsFromUser(String viewerId, String viewedId);
+
+    String toggleLike(String userId, String postId);
+
+    String generateFeed(String userId, int num);
+
+    String scrollThroughFeed(String userId, int num, int[] likes);
+
+    String sortPosts(String userId);
+
+    String suggestFollows(String userId, int k);
+
+    String trending(int k, int window);
+
+    // May write report lines to out before returning the closing result
+    String reportSortedPosts(PrintWriter out);
+
+    String reportFollowerDistribution();
+
+    String reportTopPosts(int k);
+}
@@ -0,0 +1,305 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+public class FollowGraph {
+    // A followee following n accounts is scanned with stride = max(1, n / SAMPLE_LIMIT): once n reaches
+    // 2 * SAMPLE_LIMIT only every stride-th entry of its slice is read, and each sampled hit counts stride times
+    private static final int SAMPLE_LIMIT = 2048;
+    private static final int MIN_WORK = 16384; // Fewest followee entries worth handing to a separate task
+    private static final int EXCLUDED = -1; // Count marking the querying user and accounts it already follows
+
+    private User[] users; // Users indexed by ordinal
+    private int userCount; // Number of users in the graph
+
+    // Compacted snapshot covering the first baseCount users
+    private int baseCount;
+    private int[] offsets; // Followees of user u are targets[offsets[u]] .. targets[offsets[u + 1] - 1]
+    private int[] targets; // Concatenated followee ordinals, sorted within each user's slice
+
+    // Overlay of users whose follows changed since the last compaction; null entries fall back to the snapshot
+    private int[][] patched; // Sorted followee ordinals, with spare capacity at the end
+    private int[] patchedSize; // Number of followees used in each patched array
+    private int patchedCount; // Number of users currently patched
+
+    // Scratch state reused by every query, so a query costs its two-hop degree rather than the number of users
+    private int[] counts; // Mutual counts of the last query by ordinal, zero for users it did not reach
+    private int[] touched; // Ordinals whose count the last query changed
+    private int touchedCount; // Number of ordinals in touched
+
+    // Creates an empty graph; users and follows are added as the manager creates them
+    public FollowGraph() {
+        users = new User[16];
+        patched = new int[16][];
+        patchedSize = new int[16];
+        counts = new int[16];
+        touched = new int[16];
+        offsets = new int[1];
+        targets = new int[0];
+    }
+
+    // Adds a user with no followees
+    public void addUser(User user) {
+        if (userCount == users.length) {
+            int newCapacity = 2 * users.length;
+            users = Arrays.copyOf(users, newCapacity);
+            patched = Arrays.copyOf(patched, newCapacity);
+            patchedSize = Arrays.copyOf(patchedSize, newCapacity);
+            counts = Arrays.copyOf(counts, newCapacity);
+        }
+        users[userCount++] = user; // Beyond baseCount with no patch, so its slice is empty
+    }
+
+    // Records that one user followed another, editing only the follower's slice
+    public void follow(int from, int to) {
+        int[] slice = patch(from);
+        int size = patchedSize[from];
+        int index = lowerBound(slice, 0, size, to);
+        if (index < size && slice[index] == to) return; // Already present
+        if (size == slice.length) {
+            slice = Arrays.copyOf(slice, 2 * slice.length + 4);
+            patched[from] = slice;
+        }
+        System.arraycopy(slice, index, slice, index + 1, size - index); // Keep the slice sorted
+        slice[index] = to;
+        patchedSize[from] = size + 1;
+    }
+
+    // Records that one user unfollowed another, editing only the follower's slice
+    public void unfollow(int from, int to) {
+        int[] slice = patch(from);
+        int size = patchedSize[from];
+        int index = lowerBound(slice, 0, size, to);
+        if (index == size || slice[index] != to) return; // Not present
+        System.arraycopy(slice, index + 1, slice, index, size - index - 1);
+        patchedSize[from] = size - 1;
+    }
+
+    // Returns the user's patched slice, copying it out of the snapshot on first change
+    private int[] patch(int user) {
+        if (patched[user] == null) {
+            if (patchedCount >= Math.max(64, userCount / 8)) {
+                compact(); // Overlay is large enough that folding it into the snapshot pays off
+            }
+            int start = sliceStart(user);
+            int end = sliceEnd(user);
+            patched[user] = Arrays.copyOfRange(adjacency(user), start, end + 4);
+            patchedSize[user] = end - start;
+            patchedCount++;
+        }
+        return patched[user];
+    }
+
+    // Rebuilds the snapshot from the snapshot and overlay together, then clears the overlay
+    private void compact() {
+        int[] newOffsets = new int[userCount + 1];
+        for (int u = 0; u < userCount; u++) {
+            newOffsets[u + 1] = newOffsets[u] + sliceEnd(u) - sliceStart(u); // Prefix sum of out-degrees
+        }
+        int[] newTargets = new int[newOffsets[userCount]];
+        for (int u = 0; u < userCount; u++) {
+            System.arraycopy(adjacency(u), sliceStart(u), newTargets, newOffsets[u], newOffsets[u + 1] - newOffsets[u]);
+            patched[u] = null;
+        }
+        offsets = newOffsets;
+        targets = newTargets;
+        baseCount = userCount;
+        patchedCount = 0;
+    }
+
+    // Array holding the user's followees, read between sliceStart and sliceEnd
+    private int[] adjacency(int user) {
+        return patched[user] != null ? patched[user] : targets;
+    }
+
+    private int sliceStart(int user) {
+        if (patched[user] != null) return 0;
+        return user < baseCount ? offsets[user] : 0;
+    }
+
+    private int sliceEnd(int user) {
+        if (patched[user] != null) return patchedSize[user];
+        return user < baseCount ? offsets[user + 1] : 0;
+    }
+
+    // Returns up to k ordinals of accounts followed by the user's followees, best first; not reentrant,
+    // and the mutual counts stay readable through getMutualCount until the next call
+    public int[] suggest(int userOrdinal, int k) {
+        for (int i = 0; i < touchedCount; i++) {
+            counts[touched[i]] = 0; // Clear only what the previous query wrote
+        }
+        touchedCount = 0;
+
+        int[] own = adjacency(userOrdinal);
+        int ownStart = sliceStart(userOrdinal);
+        int ownEnd = sliceEnd(userOrdinal);
+        markExcluded(userOrdinal);
+        long work = 0; // Followee entries the counting will read
+        for (int i = ownStart; i < ownEnd; i++) {
+            markExcluded(own[i]);
+            int degree = sliceEnd(own[i]) - sliceStart(own[i]);
+            work += degree / Math.max(1, degree / SAMPLE_LIMIT);
+        }
+
+        // Each task owns a disjoint range of candidate ordinals, so counts need no merging or locking
+        int taskCount = (int) Math.max(1, Math.min(ForkJoinPool.commonPool().getParallelism(), work / MIN_WORK));
+        CountTask[] tasks = new CountTask[taskCount];
+        for (int t = 0; t < taskCount; t++) {
+            tasks[t] = new CountTask(userOrdinal, (int) ((long) userCount * t / taskCount),
+                    (int) ((long) userCount * (t + 1) / taskCount));
+        }
+        if (taskCount == 1) {
+            tasks[0].compute(); // Small neighbourhoods are not worth a trip through the pool
+        } else {
+            ForkJoinTask.invokeAll(tasks);
+        }
+        for (CountTask task : tasks) {
+            for (int i = 0; i < task.foundCount; i++) {
+                addTouched(task.found[i]);
+            }
+        }
+
+        return selectTop(k);
+    }
+
+    // Returns the mutual count the last suggest call computed for a user
+    public int getMutualCount(int ordinal) {
+        return counts[ordinal];
+    }
+
+    // Keeps a user out of the suggestions of the current query
+    private void markExcluded(int ordinal) {
+        if (counts[ordinal] == EXCLUDED) return;
+        counts[ordinal] = EXCLUDED;
+        addTouched(ordinal);
+    }
+
+    private void addTouched(int ordinal) {
+        if (touchedCount == touched.length) {
+            touched = Arrays.copyOf(touched, 2 * touched.length);
+        }
+        touched[touchedCount++] = ordinal;
+    }
+
+    // Returns the user with the given ordinal
+    public User getUser(int ordinal) {
+        return users[ordinal];
+    }
+
+    // Returns the number of users in the graph
+    public int size() {
+        return userCount;
+    }
+
+    // Finds the first index in array[start, end) whose ordinal is >= key
+    private static int lowerBound(int[] array, int start, int end, int key) {
+        while (start < end) {
+            int mid = (start + end) >>> 1;
+            if (array[mid] < key) {
+                start = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return start;
+    }
+
+    // Keeps the k best candidates in a bounded min-heap, then sorts them best first
+    private int[] selectTop(int k) {
+        int[] heap = new int[Math.min(k, touchedCount)];
+        int size = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int c = touched[i];
+            if (counts[c] == EXCLUDED) continue; // The user or an account already followed
+            if (size < heap.length) {
+                heap[size] = c;
+                siftUp(heap, size++);
+            } else if (size > 0 && better(c, heap[0])) {
+                heap[0] = c; // Replace the weakest kept candidate
+                siftDown(heap, 0, size);
+            }
+        }
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = heap[0]; // Weakest first, so fill from the back
+            heap[0] = heap[i];
+            siftDown(heap, 0, i);
+        }
+        return result;
+    }
+
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!better(heap[parent], heap[index])) break;
+            int temp = heap[parent];
+            heap[parent] = heap[index];
+            heap[index] = temp;
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int index, int size) {
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && better(heap[worst], heap[left])) worst = left;
+            if (right < size && better(heap[worst], heap[right])) worst = right;
+            if (worst == index) return;
+            int temp = heap[worst];
+            heap[worst] = heap[index];
+            heap[index] = temp;
+            index = worst;
+        }
+    }
+
+    // Orders candidates by mutual count, then by user ID
+    private boolean better(int a, int b) {
+        if (counts[a] != counts[b]) {
+            return counts[a] > counts[b];
+        }
+        return users[a].getUserId().compareTo(users[b].getUserId()) < 0;
+    }
+
+    // Counts, for candidates in [lo, hi), how many of the user's followees follow them (estimated for sampled followees)
+    private class CountTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L; // Tasks are never serialized, but ForkJoinTask is Serializable
+        private final int userOrdinal;
+        private final int lo;
+        private final int hi;
+        private int[] found = new int[16]; // Candidates this task reached, in first-reached order
+        private int foundCount; // Number of candidates in found
+
+        CountTask(int userOrdinal, int lo, int hi) {
+            this.userOrdinal = userOrdinal;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            int[] own = adjacency(userOrdinal);
+            for (int i = sliceStart(userOrdinal); i < sliceEnd(userOrdinal); i++) {
+                int followee = own[i];
+                int[] adjacency = adjacency(followee);
+                int start = sliceStart(followee);
+                int end = sliceEnd(followee);
+                int stride = Math.max(1, (end - start) / SAMPLE_LIMIT); // Sample very high-degree accounts
+                int from = lowerBound(adjacency, start, end, lo); // Jump straight to this task's candidate range
+                int first = from + (stride - (from - start) % stride) % stride; // First sampled index at or after from
+                for (int j = first; j < end && adjacency[j] < hi; j += stride) { // Entries between samples are never read
+                    int candidate = adjacency[j];
+                    int count = counts[candidate];
+                    if (count == EXCLUDED) continue;
+                    if (count == 0) {
+                        if (foundCount == found.length) found = Arrays.copyOf(found, 2 * found.length);
+                        found[foundCount++] = candidate;
+                    }
+                    counts[candidate] = count + stride; // Scale sampled hits back up so counts stay comparable
+                }
+            }
+        }
+    }
+}
@@ -1,12 +1,32 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Scanner;
 
 public class Main {
     public static void main(String[] args) {
+        if (args.length == 4 && args[0].equals("--shadow")) { // Compare an alternative engine against Manager
+            runShadow(args[1], args[2], args[3]);
+            return;
+        }
+        if (args.length == 3 && args[0].startsWith("--")) { // Binary input and conversion modes
+            runMode(args[0], args[1], args[2]);
+            return;
+        }
         if (args.length < 2) { // Check if the required arguments are provided
             System.err.println("Usage: java Main <input file path> <output file path>");
+            System.err.println("       java Main --binary <binary input file path> <output file path>");
+            System.err.println("       java Main --to-binary <text input file path> <binary output file path>");
+            System.err.println("       java Main --to-text <binary input file path> <text output file path>");
+            System.err.println("       java Main --shadow <engine class name> <input file path> <output file path>");
             return; // Exit if not enough arguments are provided
         }
         String inputFile = args[0];  // Use the first command line argument as the input file path
@@ -18,87 +38,235 @@ public class Main {
 
             while (scanner.hasNextLine()) {
                 String commandLine = scanner.nextLine().trim();  // Read and trim the next line from the input file
-                String[] parts = commandLine.split(" ", 4);  // Split the command line into parts
-                String result = "";  // Variable to store the result of command execution
+                writer.println(execute(manager, commandLine, writer));  // Write the result to the output file
+            }
+
+        } catch (Exception e) {
+            System.err.println("An error occurred: " + e.getMessage());  // Log any exceptions that occur
+        }
+    }
 
-                if (parts.length > 0) {
-                    String command = parts[0];  // Get the command part
-                    switch (command) {  // Process the command
-                        case "create_user":
-                            result = parts.length == 2 ? manager.createUser(parts[1]) : "Invalid command format for create_user.";
-                            break;
-                        case "follow_user":
-                            result = parts.length == 3 ? manager.followUser(parts[1], parts[2]) : "Invalid command format for follow_user.";
-                            break;
-                        case "unfollow_user":
-                            result = parts.length == 3 ? manager.unfollowUser(parts[1], parts[2]) : "Invalid command format for unfollow_user.";
-                            break;
-                        case "create_post":
-                            if (parts.length == 4) {
-                                result = manager.createPost(parts[1], parts[2], parts[3]);
-                            } else {
-                                result = "Invalid command format for create_post.";
-                            }
-                            break;
-                        case "see_post":
-                            result = parts.length == 3 ? manager.seePost(parts[1], parts[2]) : "Invalid command format for see_post.";
-                            break;
-                        case "see_all_posts_from_user":
-                            result = parts.length == 3 ? manager.seeAllPostsFromUser(parts[1], parts[2]) : "Invalid command format for see_all_posts_from_user.";
-                            break;
-                        case "toggle_like":
-                            result = parts.length == 3 ? manager.toggleLike(parts[1], parts[2]) : "Invalid command format for toggle_like.";
-                            break;
-                        case "generate_feed":
-                            if (parts.length == 3) {
-                                String userId = parts[1];
-                                int numPosts;
-                                try {
-                                    numPosts = Integer.parseInt(parts[2]);  // Try to parse the number of posts
-                                    result = manager.generateFeed(userId, numPosts);
-                                } catch (NumberFormatException e) {
-                                    result = "Invalid number format for numPosts.";
-                                }
-                            } else {
-                                result = "Invalid command format for generate_feed.";
-                            }
-                            break;
-                        case "scroll_through_feed":
-                            try (Scanner commandScanner = new Scanner(commandLine)) {  // Create a new scanner for command processing
-                                commandScanner.next();  // Skip the command itself
-                                String userId = commandScanner.next();
-                                int num = commandScanner.nextInt();
-                                int[] likes = new int[num];
-                                int count = 0;
-                                while (commandScanner.hasNext() && count < num) {
-                                    likes[count] = commandScanner.nextInt();  // Read each like value
-                                    count++;
-                                }
-                                result = manager.scrollThroughFeed(userId, num, likes);
-                            } catch (Exception e) {
-                                result = "Invalid command format for scroll_through_feed.";
-                            }
-                            break;
-                        case "sort_posts":
-                            if (parts.length == 2) {
-                                result = manager.sortPosts(parts[1]);
-                            } else {
-                                result ="Invalid command format for sort_posts.";
-                            }
-                            break;
-                        default:
-                            result = "Unknown command: " + command;  // Handle unknown commands
-                            break;
+    // Handles the binary command modes: executing a binary file or converting between formats
+    private static void runMode(String mode, String inputFile, String outputFile) {
+        BinaryCommand command = new BinaryCommand(); // Reused for every record
+        try {
+            switch (mode) {
+                case "--binary":
+                    Manager manager = new Manager();
+                    try (BinaryCommandReader reader = new BinaryCommandReader(FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ));
+                         PrintWriter writer = new PrintWriter(new FileWriter(outputFile))) {
+                        while (reader.next(command)) {
+                            writer.println(execute(manager, command, writer));
+                        }
                     }
-                } else {
-                    result = "Empty command line.";  // Handle empty command lines
-                }
+                    break;
+                case "--to-binary":
+                    // Text is read and written as UTF-8, the encoding the binary format stores, whatever the platform default
+                    try (TextLineReader lines = new TextLineReader(new FileReader(inputFile, StandardCharsets.UTF_8));
+                         BinaryCommandWriter writer = new BinaryCommandWriter(new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+                        String line;
+                        while ((line = lines.readLine()) != null) {
+                            command.parse(line);  // Lines are kept untrimmed so conversion is lossless
+                            command.lineEnd = lines.getLineEnd(); // Terminators too, including a missing final one
+                            writer.write(command);
+                        }
+                    }
+                    break;
+                case "--to-text":
+                    try (BinaryCommandReader reader = new BinaryCommandReader(FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ));
+                         BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile, StandardCharsets.UTF_8))) {
+                        while (reader.next(command)) {
+                            writer.write(command.toText());
+                            writer.write(command.lineEnd); // Restores the original terminator, not the platform one
+                        }
+                    }
+                    break;
+                default:
+                    System.err.println("Unknown mode: " + mode);
+                    break;
+            }
+        } catch (Exception e) {
+            System.err.println("An error occurred: " + e.getMessage());  // Log any exceptions that occur
+        }
+    }
+
+    // Runs every command through Manager and the named engine, writing Manager's output and reporting differences
+    private static void runShadow(String engineClass, String inputFile, String outputFile) {
+        try (Scanner scanner = new Scanner(new File(inputFile));
+             PrintWriter writer = new PrintWriter(new FileWriter(outputFile))) {
+            FeedEngine candidate = (FeedEngine) Class.forName(engineClass).getDeclaredConstructor().newInstance();
+            ShadowRunner shadow = new ShadowRunner(new Manager(), candidate);
 
-                writer.println(result);  // Write the result to the output file
+            while (scanner.hasNextLine()) {
+                String commandLine = scanner.nextLine().trim();  // Read and trim the next line from the input file
+                writer.println(shadow.execute(commandLine));  // Only the reference output is written
             }
+            shadow.printSummary(System.err);
 
+        } catch (ClassNotFoundException e) {
+            System.err.println("Engine class not found: " + engineClass);
         } catch (Exception e) {
             System.err.println("An error occurred: " + e.getMessage());  // Log any exceptions that occur
         }
     }
+
+    // Parses and executes one text command line, returning its result; reports may stream lines to writer first
+    static String execute(FeedEngine engine, String commandLine, PrintWriter writer) {
+        String[] parts = commandLine.split(" ", 4);  // Split the command line into parts
+        String result = "";  // Variable to store the result of command execution
+
+        if (parts.length > 0) {
+            String command = parts[0];  // Get the command part
+            switch (command) {  // Process the command
+                case "create_user":
+                    result = parts.length == 2 ? engine.createUser(parts[1]) : "Invalid command format for create_user.";
+                    break;
+                case "follow_user":
+                    result = parts.length == 3 ? engine.followUser(parts[1], parts[2]) : "Invalid command format for follow_user.";
+                    break;
+                case "unfollow_user":
+                    result = parts.length == 3 ? engine.unfollowUser(parts[1], parts[2]) : "Invalid command format for unfollow_user.";
+                    break;
+                case "create_post":
+                    if (parts.length == 4) {
+                        result = engine.createPost(parts[1], parts[2], parts[3]);
+                    } else {
+                        result = "Invalid command format for create_post.";
+                    }
+                    break;
+                case "see_post":
+                    result = parts.length == 3 ? engine.seePost(parts[1], parts[2]) : "Invalid command format for see_post.";
+                    break;
+                case "see_all_posts_from_user":
+                    result = parts.length == 3 ? engine.seeAllPostsFromUser(parts[1], parts[2]) : "Invalid command format for see_all_posts_from_user.";
+                    break;
+                case "toggle_like":
+                    result = parts.length == 3 ? engine.toggleLike(parts[1], parts[2]) : "Invalid command format for toggle_like.";
+                    break;
+                case "generate_feed":
+                    if (parts.length == 3) {
+                        String userId = parts[1];
+                        int numPosts;
+                        try {
+                            numPosts = Integer.parseInt(parts[2]);  // Try to parse the number of posts
+                            result = engine.generateFeed(userId, numPosts);
+                        } catch (NumberFormatException e) {
+                            result = "Invalid number format for numPosts.";
+                        }
+                    } else {
+                        result = "Invalid command format for generate_feed.";
+                    }
+                    break;
+                case "scroll_through_feed":
+                    try (Scanner commandScanner = new Scanner(commandLine)) {  // Create a new scanner for command processing
+                        commandScanner.next();  // Skip the command itself
+                        String userId = commandScanner.next();
+                        int num = commandScanner.nextInt();
+                        int[] likes = new int[num];
+                        int count = 0;
+                        while (commandScanner.hasNext() && count < num) {
+                            likes[count] = commandScanner.nextInt();  // Read each like value
+                            count++;
+                        }
+                        result = engine.scrollThroughFeed(userId, num, likes);
+                    } catch (Exception e) {
+                        result = "Invalid command format for scroll_through_feed.";
+                    }
+                    break;
+                case "sort_posts":
+                    if (parts.length == 2) {
+                        result = engine.sortPosts(parts[1]);
+                    } else {
+                        result ="Invalid command format for sort_posts.";
+                    }
+                    break;
+                case "suggest_follows":
+                    if (parts.length == 3) {
+                        try {
+                            int k = Integer.parseInt(parts[2]);  // Try to parse the number of suggestions
+                            result = engine.suggestFollows(parts[1], k);
+                        } catch (NumberFormatException e) {
+                            result = "Invalid number format for k.";
+                        }
+                    } else {
+                        result = "Invalid command format for suggest_follows.";
+                    }
+                    break;
+                case "trending":
+                    if (parts.length == 3) {
+                        try {
+                            int k = Integer.parseInt(parts[1]);  // Try to parse the number of posts
+                            int window = Integer.parseInt(parts[2]);  // Try to parse the window size
+                            result = engine.trending(k, window);
+                        } catch (NumberFormatException e) {
+                            result = "Invalid number format for trending.";
+                        }
+                    } else {
+                        result = "Invalid command format for trending.";
+                    }
+                    break;
+                case "report_sorted_posts":
+                    result = parts.length == 1 ? engine.reportSortedPosts(writer) : "Invalid command format for report_sorted_posts.";
+                    break;
+                case "report_follower_distribution":
+                    result = parts.length == 1 ? engine.reportFollowerDistribution() : "Invalid command format for report_follower_distribution.";
+                    break;
+                case "report_top_posts":
+                    if (parts.length == 2) {
+                        try {
+                            int k = Integer.parseInt(parts[1]);  // Try to parse the number of posts
+                            result = engine.reportTopPosts(k);
+                        } catch (NumberFormatException e) {
+                            result = "Invalid number format for k.";
+                        }
+                    } else {
+                        result = "Invalid command format for report_top_posts.";
+                    }
+                    break;
+                default:
+                    result = "Unknown command: " + command;  // Handle unknown commands
+                    break;
+            }
+        } else {
+            result = "Empty command line.";  // Handle empty command lines
+        }
+
+        return result;
+    }
+
+    // Executes one decoded binary command without any text parsing
+    static String execute(FeedEngine engine, BinaryCommand command, PrintWriter writer) {
+        switch (command.opcode) {
+            case BinaryCommand.CREATE_USER:
+                return engine.createUser(command.firstId);
+            case BinaryCommand.FOLLOW_USER:
+                return engine.followUser(command.firstId, command.secondId);
+            case BinaryCommand.UNFOLLOW_USER:
+                return engine.unfollowUser(command.firstId, command.secondId);
+            case BinaryCommand.CREATE_POST:
+                return engine.createPost(command.firstId, command.secondId, command.text);
+            case BinaryCommand.SEE_POST:
+                return engine.seePost(command.firstId, command.secondId);
+            case BinaryCommand.SEE_ALL_POSTS_FROM_USER:
+                return engine.seeAllPostsFromUser(command.firstId, command.secondId);
+            case BinaryCommand.TOGGLE_LIKE:
+                return engine.toggleLike(command.firstId, command.secondId);
+            case BinaryCommand.GENERATE_FEED:
+                return engine.generateFeed(command.firstId, command.firstNumber);
+            case BinaryCommand.SCROLL_THROUGH_FEED:
+                int[] likes = new int[command.firstNumber];
+                for (int i = 0; i < likes.length && i < command.flagCount; i++) {
+                    likes[i] = command.flags[i] ? 1 : 0;  // Flags beyond num are ignored, as in text mode
+                }
+                return engine.scrollThroughFeed(command.firstId, command.firstNumber, likes);
+            case BinaryCommand.SORT_POSTS:
+                return engine.sortPosts(command.firstId);
+            case BinaryCommand.SUGGEST_FOLLOWS:
+                return engine.suggestFollows(command.firstId, command.firstNumber);
+            case BinaryCommand.TRENDING:
+                return engine.trending(command.firstNumber, command.secondNumber);
+            default:
+                return execute(engine, command.text.trim(), writer);  // Lines without a compact form go through the text parser
+        }
+    }
 }
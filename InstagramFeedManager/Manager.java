@@ -1,24 +1,40 @@
-public class Manager {
+import java.io.PrintWriter;
+
+public class Manager implements FeedEngine {
     private CustomHashMap<String, User> users; // Hash map to store users by their IDs
     private CustomHashMap<String, Post> posts; // Hash map to store posts by their IDs
+    private EntityStore store; // Columnar storage backing every User and Post view
+    private FollowGraph followGraph; // Adjacency by user ordinal, patched in place as follows change
+    private TrendingTracker trending; // Fixed-size sketch of recent like activity across all posts
+    private MutationRing mutations; // Change stream for downstream consumers, null when disabled
+    private Analytics analytics; // Parallel whole-dataset reports
 
     // Constructor initializes the hash maps for users and posts
     public Manager() {
         users = new CustomHashMap<>();
         posts = new CustomHashMap<>();
+        store = new EntityStore();
+        followGraph = new FollowGraph();
+        trending = new TrendingTracker();
+        analytics = new Analytics(this, users, posts, store);
     }
 
     // Creates and adds a new user to the hash map if not already present
+    @Override
     public String createUser(String userId) {
         if (users.containsKey(userId)) {
             return "Some error occurred in create_user."; // Return error if user already exists
         } else {
-            users.put(userId, new User(userId)); // Add new user to the map
+            User user = store.createUser(userId);
+            users.put(userId, user); // Add new user to the map
+            followGraph.addUser(user);
+            publish(MutationEvent.Type.CREATE_USER, userId, null, null);
             return "Created user with Id " + userId + "."; // Success message
         }
     }
 
     // Allows one user to follow another if both exist and are not the same
+    @Override
     public String followUser(String userId1, String userId2) {
         if (!users.containsKey(userId1) || !users.containsKey(userId2) || userId1.equals(userId2)) {
             return "Some error occurred in follow_user."; // Check existence and prevent self-follow
@@ -27,6 +43,8 @@ public class Manager {
             User user2 = users.get(userId2);
             if (!user1.getFollowing().contains(user2)) {
                 user1.follow(user2); // Perform follow operation
+                followGraph.follow(user1.getOrdinal(), user2.getOrdinal()); // Only user1's slice changes
+                publish(MutationEvent.Type.FOLLOW, userId1, userId2, null);
                 return userId1 + " followed " + userId2 + ".";
             } else {
                 return "Some error occurred in follow_user."; // Error if already following
@@ -35,6 +53,7 @@ public class Manager {
     }
 
     // Allows a user to unfollow another user, given both exist and are not the same
+    @Override
     public String unfollowUser(String userId1, String userId2) {
         if (!users.containsKey(userId1) || !users.containsKey(userId2) || userId1.equals(userId2)) {
             return "Some error occurred in unfollow_user."; // Validate existence and prevent self-unfollow
@@ -43,6 +62,8 @@ public class Manager {
             User user2 = users.get(userId2);
             if (user1.getFollowing().contains(user2)) {
                 user1.unfollow(user2); // Perform unfollow operation
+                followGraph.unfollow(user1.getOrdinal(), user2.getOrdinal()); // Only user1's slice changes
+                publish(MutationEvent.Type.UNFOLLOW, userId1, userId2, null);
                 return userId1 + " unfollowed " + userId2 + ".";
             } else {
                 return "Some error occurred in unfollow_user."; // Error if not currently following
@@ -51,6 +72,7 @@ public class Manager {
     }
 
     // Creates a post for a user if the user exists and the post ID is unique
+    @Override
     public String createPost(String userId, String postId, String content) {
         if (!users.containsKey(userId)) {
             return "Some error occurred in create_post."; // Check user existence
@@ -59,13 +81,15 @@ public class Manager {
             return "Some error occurred in create_post."; // Ensure post ID uniqueness
         }
         User user = users.get(userId);
-        Post newPost = new Post(postId, content, user);
+        Post newPost = store.createPost(postId, content, user);
         posts.put(postId, newPost); // Add post to the map
         user.addPost(newPost); // Add post to user's list of posts
+        publish(MutationEvent.Type.CREATE_POST, userId, postId, content);
         return userId + " created a post with Id " + postId + ".";
     }
 
     // Marks a post as seen by a user, assuming both the user and the post exist
+    @Override
     public String seePost(String userId, String postId) {
         if (!users.containsKey(userId) || !posts.containsKey(postId)) {
             return "Some error occurred in see_post."; // Validate user and post existence
@@ -73,10 +97,12 @@ public class Manager {
         User user = users.get(userId);
         Post post = posts.get(postId);
         user.seePost(post); // Mark the post as seen
+        publish(MutationEvent.Type.SEE_POST, userId, postId, null);
         return userId + " saw " + postId + ".";
     }
 
     // Shows all posts from one user as seen by another user, given both users exist
+    @Override
     public String seeAllPostsFromUser(String viewerId, String viewedId) {
         if (!users.containsKey(viewerId) || !users.containsKey(viewedId)) {
             return "Some error occurred in see_all_posts_from_user."; // Check both users exist
@@ -87,12 +113,14 @@ public class Manager {
 
         for (Post post : posts) {
             viewer.seePost(post); // Mark each post as seen by the viewer
+            publish(MutationEvent.Type.SEE_POST, viewerId, post.getPostId(), null);
         }
 
         return viewerId + " saw all posts of " + viewedId + ".";
     }
 
     // Toggles a like on a post by a user, assuming both the user and the post exist
+    @Override
     public String toggleLike(String userId, String postId) {
         if (!users.containsKey(userId) || !posts.containsKey(postId)) {
             return "Some error occurred in toggle_like."; // Check user and post existence
@@ -103,14 +131,30 @@ public class Manager {
 
         if (post.getLikedBy().contains(user)) {
             post.unlikePost(user); // Unlike the post if already liked
+            publish(MutationEvent.Type.UNLIKE, userId, postId, null);
             return userId + " unliked " + postId + ".";
         } else {
             post.likePost(user); // Like the post if not already liked
+            trending.recordLike(post);
+            publish(MutationEvent.Type.LIKE, userId, postId, null);
             return userId + " liked " + postId + ".";
         }
     }
 
+    // Attaches a change stream that receives every successful mutation, or detaches it when null
+    public void setMutationRing(MutationRing mutations) {
+        this.mutations = mutations;
+    }
+
+    // Publishes a mutation to the change stream if one is attached
+    private void publish(MutationEvent.Type type, String userId, String targetId, String content) {
+        if (mutations != null) {
+            mutations.publish(type, userId, targetId, content);
+        }
+    }
+
     // Generates a user-specific feed, filtering out seen and user's own posts
+    @Override
     public String generateFeed(String userId, int num) {
         if (!users.containsKey(userId)) {
             return "Some error occurred in generate_feed."; // Check user existence
@@ -120,20 +164,20 @@ public class Manager {
         CustomHashSet<Post> seenPosts = user.getSeenPosts();
         CustomHashSet<Post> userPosts = user.getPosts();
 
-        CustomPriorityQueue feedQueue = new CustomPriorityQueue();
+        CustomPriorityQueue feedQueue = new CustomPriorityQueue(store);
 
         for (User followedUser : user.getFollowing()) {
             for (Post post : followedUser.getPosts()) {
                 if (!seenPosts.contains(post) && !userPosts.contains(post)) {
-                    feedQueue.add(post); // Add eligible posts to the feed
+                    feedQueue.addCandidate(post); // Collect eligible posts, ordered in bulk below
                 }
             }
         }
 
         StringBuilder log = new StringBuilder("Feed for " + userId + ":\n");
+        Post[] feed = feedQueue.topK(num); // Heapify once and pop only the requested posts
         int count = 0;
-        while (!feedQueue.isEmpty() && count < num) {
-            Post post = feedQueue.poll(); // Poll posts based on priority
+        for (Post post : feed) {
             log.append("Post ID: ").append(post.getPostId())
                     .append(", Author: ").append(post.getAuthorUsername())
                     .append(", Likes: ").append(post.getLikeCount()).append("\n");
@@ -153,6 +197,7 @@ public class Manager {
     }
 
     // Scrolls through a user's feed and handles likes specified by the user
+    @Override
     public String scrollThroughFeed(String userId, int num, int[] likes) {
         if (!users.containsKey(userId)) {
             return "Some error occurred in scroll_through_feed."; // Error if the user does not exist
@@ -163,28 +208,32 @@ public class Manager {
         CustomHashSet<Post> seenPosts = user.getSeenPosts(); // Get the list of posts this user has seen
         CustomHashSet<Post> userPosts = user.getPosts(); // Get the user's own posts
 
-        CustomPriorityQueue postQueue = new CustomPriorityQueue(); // Priority queue for managing the feed
+        CustomPriorityQueue postQueue = new CustomPriorityQueue(store); // Priority queue for managing the feed
 
         // Populate the priority queue with eligible posts from followed users
         for (User followedUser : following) {
             for (Post post : followedUser.getPosts()) {
                 if (!seenPosts.contains(post) && !userPosts.contains(post)) { // Ensure the post is neither seen nor owned by the user
-                    postQueue.add(post); // Add the post to the queue
+                    postQueue.addCandidate(post); // Collect the post, ordered in bulk below
                 }
             }
         }
 
         StringBuilder log = new StringBuilder(userId + " is scrolling through feed:\n");
+        Post[] feed = postQueue.topK(num); // Select the posts to scroll through before any likes change counts
         int count = 0;
 
         // Process each post in the feed up to the specified number
-        while (!postQueue.isEmpty() && count < num) {
-            Post post = postQueue.poll(); // Get the next highest priority post
+        for (Post post : feed) {
             user.seePost(post); // Mark the post as seen
+            publish(MutationEvent.Type.SEE_POST, userId, post.getPostId(), null);
             log.append(userId).append(" saw ").append(post.getPostId()).append(" while scrolling");
 
             if (likes[count] == 1) { // Check if the user liked this particular post
-                post.likePost(user); // Like the post
+                if (post.likePost(user)) { // Like the post
+                    trending.recordLike(post);
+                    publish(MutationEvent.Type.LIKE, userId, post.getPostId(), null);
+                }
                 log.append(" and clicked the like button");
             }
 
@@ -202,19 +251,25 @@ public class Manager {
     }
 
     // Sorts the posts of a user by like count and post ID and returns them in a formatted string
+    @Override
     public String sortPosts(String userId) {
         if (!users.containsKey(userId)) {
             return "Some error occurred in sort_posts."; // Error if the user does not exist
         }
 
-        User user = users.get(userId);
+        return sortPosts(users.get(userId));
+    }
+
+    // Formats a user's posts sorted by like count and post ID; read-only, so parallel reports can call it
+    String sortPosts(User user) {
+        String userId = user.getUserId();
         if (user.getPosts().isEmpty()) {
             return "No posts from " + userId + "."; // Check if the user has no posts
         }
 
-        CustomPriorityQueue postQueue = new CustomPriorityQueue(); // Priority queue to sort the posts
+        CustomPriorityQueue postQueue = new CustomPriorityQueue(store, user.getPosts().size()); // Priority queue to sort the posts
         for (Post post : user.getPosts()) {
-            postQueue.add(post); // Add each post to the queue
+            postQueue.addCandidate(post); // Collect each post, heapified once on the first poll
         }
 
         StringBuilder log = new StringBuilder("Sorting " + userId + "'s posts:\n");
@@ -230,6 +285,60 @@ public class Manager {
 
         return log.toString();
     }
-}
 
+    // Suggests accounts followed by the people a user follows, ranked by how many of them follow each account
+    // A followee following n >= 4096 accounts is sampled: only every (n / 2048)-th account it follows is read,
+    // and each hit counts n / 2048 times, so Mutuals is an estimate whenever such a followee contributes
+    @Override
+    public String suggestFollows(String userId, int k) {
+        if (!users.containsKey(userId) || k < 0) {
+            return "Some error occurred in suggest_follows."; // Error if the user does not exist or k is negative
+        }
+
+        User user = users.get(userId);
+        int[] suggestions = followGraph.suggest(user.getOrdinal(), k);
+
+        StringBuilder log = new StringBuilder("Suggested follows for " + userId + ":");
+        for (int ordinal : suggestions) {
+            log.append("\n").append(followGraph.getUser(ordinal).getUserId())
+                    .append(", Mutuals: ").append(followGraph.getMutualCount(ordinal));
+        }
 
+        if (suggestions.length < k) {
+            log.append("\nNo more suggestions for ").append(userId).append(".");
+        }
+
+        return log.toString();
+    }
+
+    // Lists the posts that gathered the most likes over the most recent like events
+    @Override
+    public String trending(int k, int window) {
+        if (k < 0 || window <= 0 || window > TrendingTracker.MAX_WINDOW) {
+            return "Some error occurred in trending."; // Error if the window is outside the tracked range
+        }
+        return trending.trending(k, window);
+    }
+
+    // Streams the sort_posts ranking of every user with posts, scanning users in parallel
+    @Override
+    public String reportSortedPosts(PrintWriter out) {
+        int reported = analytics.streamSortedPosts(out);
+        return "Reported sorted posts for " + reported + " users.";
+    }
+
+    // Summarizes how follower counts are distributed across all users
+    @Override
+    public String reportFollowerDistribution() {
+        return analytics.followerDistribution();
+    }
+
+    // Lists the most liked posts across all users
+    @Override
+    public String reportTopPosts(int k) {
+        if (k < 0) {
+            return "Some error occurred in report_top_posts."; // Error if k is negative
+        }
+        return analytics.topPosts(k);
+    }
+}
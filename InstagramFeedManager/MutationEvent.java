@@ -0,0 +1,52 @@
+public class MutationEvent {
+    // Kinds of state changes published by the manager
+    public enum Type {
+        CREATE_USER, // userId created
+        FOLLOW, // userId followed targetId
+        UNFOLLOW, // userId unfollowed targetId
+        CREATE_POST, // userId created post targetId with content
+        SEE_POST, // userId saw post targetId
+        LIKE, // userId liked post targetId (liking also marks the post as seen)
+        UNLIKE // userId unliked post targetId
+    }
+
+    private long sequence; // Position of this event in the stream
+    private Type type; // Kind of mutation
+    private String userId; // User performing the mutation
+    private String targetId; // Followed user or affected post, null for CREATE_USER
+    private String content; // Post content for CREATE_POST, null otherwise
+
+    // Overwrites this preallocated slot with a new event
+    void set(long sequence, Type type, String userId, String targetId, String content) {
+        this.sequence = sequence;
+        this.type = type;
+        this.userId = userId;
+        this.targetId = targetId;
+        this.content = content;
+    }
+
+    // Returns the sequence number of the event
+    public long getSequence() {
+        return sequence;
+    }
+
+    // Returns the kind of mutation
+    public Type getType() {
+        return type;
+    }
+
+    // Returns the ID of the user performing the mutation
+    public String getUserId() {
+        return userId;
+    }
+
+    // Returns the ID of the followed user or affected post
+    public String getTargetId() {
+        return targetId;
+    }
+
+    // Returns the post content for CREATE_POST events
+    public String getContent() {
+        return content;
+    }
+}
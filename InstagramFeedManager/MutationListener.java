@@ -0,0 +1,4 @@
+public interface MutationListener {
+    // Called once per event, in sequence order; the event object is reused after this returns
+    void onEvent(MutationEvent event);
+}
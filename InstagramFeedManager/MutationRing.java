@@ -0,0 +1,115 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MutationRing {
+    private final MutationEvent[] slots; // Preallocated events, reused as the ring wraps
+    private final int mask; // capacity - 1, used instead of modulo
+    private final AtomicLong cursor; // Sequence of the last published event, -1 before the first
+    private volatile Subscription[] subscriptions; // Consumers gating the producer, copied on change
+
+    // Creates a ring whose capacity is rounded up to a power of two
+    public MutationRing(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        slots = new MutationEvent[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new MutationEvent();
+        }
+        mask = size - 1;
+        cursor = new AtomicLong(-1);
+        subscriptions = new Subscription[0];
+    }
+
+    // Publishes an event; only one thread may call this. Blocks while the slowest consumer is a full ring behind
+    public void publish(MutationEvent.Type type, String userId, String targetId, String content) {
+        long next = cursor.get() + 1;
+        long wrapPoint = next - slots.length; // Sequence whose slot is about to be overwritten
+        int spins = 0;
+        while (wrapPoint > minimumSequence()) {
+            if (++spins < 100) {
+                Thread.onSpinWait(); // Backpressure: wait for consumers to catch up
+            } else {
+                Thread.yield();
+            }
+        }
+        slots[(int) (next & mask)].set(next, type, userId, targetId, content);
+        cursor.set(next); // Make the event visible to consumers
+    }
+
+    // Registers a consumer that will see every event published from now on
+    public synchronized Subscription subscribe() {
+        Subscription subscription = new Subscription(cursor.get());
+        Subscription[] current = subscriptions;
+        Subscription[] updated = new Subscription[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = subscription;
+        subscriptions = updated;
+        return subscription;
+    }
+
+    // Removes a consumer so it no longer holds back the producer
+    private synchronized void unsubscribe(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                Subscription[] updated = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscriptions = updated;
+                return;
+            }
+        }
+    }
+
+    // Returns the lowest sequence processed by any consumer, or the cursor when there are none
+    private long minimumSequence() {
+        long minimum = cursor.get();
+        for (Subscription subscription : subscriptions) {
+            minimum = Math.min(minimum, subscription.sequence.get());
+        }
+        return minimum;
+    }
+
+    // Returns the sequence of the last published event
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    // Returns the number of slots in the ring
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    // A consumer's position in the stream; each subscription is meant to be drained by a single thread
+    public class Subscription {
+        private final AtomicLong sequence; // Sequence of the last event this consumer has processed
+
+        private Subscription(long start) {
+            this.sequence = new AtomicLong(start);
+        }
+
+        // Hands every available event to the listener and returns how many were processed
+        public int poll(MutationListener listener) {
+            long next = sequence.get() + 1;
+            long available = cursor.get();
+            int handled = 0;
+            while (next <= available) {
+                listener.onEvent(slots[(int) (next & mask)]);
+                sequence.lazySet(next); // Release the slot to the producer
+                next++;
+                handled++;
+            }
+            return handled;
+        }
+
+        // Returns the sequence of the last event this consumer has processed
+        public long getSequence() {
+            return sequence.get();
+        }
+
+        // Stops this consumer from applying backpressure to the producer
+        public void close() {
+            unsubscribe(this);
+        }
+    }
+}
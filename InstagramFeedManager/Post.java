@@ -1,55 +1,58 @@
 public class Post {
-    private String postId;  // Unique identifier for the post
-    private String content;  // Text content of the post
-    private int likeCount;  // Number of likes this post has received
-    private User author;  // The user who authored this post
+    private final EntityStore store;  // Columnar store holding the post's ID, content, author and like count
+    private final int ordinal;  // Row of this post in the store's columns
     private CustomHashSet<User> likedBy; // Set of users who have liked this post
 
-    // Constructor to initialize the Post object with its ID, content, and author
-    public Post(String postId, String content, User author) {
-        this.postId = postId;
-        this.content = content;
-        this.likeCount = 0; // Initialize like count to zero
-        this.author = author;
+    // Constructor binds the view to its row; posts are created through EntityStore.createPost
+    Post(EntityStore store, int ordinal) {
+        this.store = store;
+        this.ordinal = ordinal;
         this.likedBy = new CustomHashSet<>();
     }
 
+    // Getter for the dense ordinal of the post
+    public int getOrdinal() {
+        return ordinal;
+    }
+
     // Getter for post ID
     public String getPostId() {
-        return postId;
+        return store.getPostId(ordinal);
     }
 
     // Getter for post content
     public String getContent() {
-        return content;
+        return store.getContent(ordinal);
     }
 
     // Getter for the count of likes
     public int getLikeCount() {
-        return likeCount;
+        return store.getLikeCount(ordinal);
     }
 
     // Getter for the author of the post
     public User getAuthor() {
-        return author;
+        return store.getUser(store.getAuthorOrdinal(ordinal));
     }
 
-    // Method to handle liking a post
-    public void likePost(User user) {
+    // Method to handle liking a post, returns true if the like was new
+    public boolean likePost(User user) {
         // Ensure the post is marked as seen by the user when it is liked
         user.seePost(this);
 
         // If this user has not previously liked this post, increase the like count
         if (likedBy.add(user)) {
-            likeCount++;
+            store.incrementLikes(ordinal);
+            return true;
         }
+        return false;
     }
 
     // Method to handle unliking a post
     public void unlikePost(User user) {
         // If this user has liked this post, decrease the like count upon unliking
         if (likedBy.remove(user)) {
-            likeCount--;
+            store.decrementLikes(ordinal);
         }
     }
 
@@ -60,6 +63,6 @@ public class Post {
 
     // Returns the username of the author of the post
     public String getAuthorUsername() {
-        return author.getUserId(); // This method assumes User class has a getUserId() method
+        return store.getUserId(store.getAuthorOrdinal(ordinal));
     }
 }
@@ -0,0 +1,129 @@
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+
+public class ShadowRunner {
+    private final FeedEngine reference; // Engine whose output is authoritative
+    private final FeedEngine candidate; // Engine being validated against the reference
+    private final CustomHashMap<String, long[]> timings; // Per command name: count, reference nanos, candidate nanos
+    private final ArrayList<String> commandOrder; // Command names in first-seen order, for the summary
+    private long lineNumber; // Number of commands executed so far
+    private long divergences; // Number of commands whose outputs differed
+    private String firstDivergence; // Description of the first divergence, null while outputs match
+
+    public ShadowRunner(FeedEngine reference, FeedEngine candidate) {
+        this.reference = reference;
+        this.candidate = candidate;
+        this.timings = new CustomHashMap<>();
+        this.commandOrder = new ArrayList<>();
+    }
+
+    // Runs one command line through both engines and returns the reference output, including any streamed lines
+    public String execute(String commandLine) {
+        lineNumber++;
+        StringWriter referenceOutput = new StringWriter();
+        StringWriter candidateOutput = new StringWriter();
+        long referenceNanos;
+        long candidateNanos;
+
+        // Alternate which engine goes first so warm caches and JIT state do not favour either side
+        if (lineNumber % 2 == 0) {
+            referenceNanos = runReference(commandLine, referenceOutput);
+            candidateNanos = runCandidate(commandLine, candidateOutput);
+        } else {
+            candidateNanos = runCandidate(commandLine, candidateOutput);
+            referenceNanos = runReference(commandLine, referenceOutput);
+        }
+
+        record(commandLine, referenceNanos, candidateNanos);
+        String expected = referenceOutput.toString();
+        String actual = candidateOutput.toString();
+        if (!expected.equals(actual)) {
+            divergences++;
+            if (firstDivergence == null) {
+                firstDivergence = describe(commandLine, expected, actual);
+            }
+        }
+        return expected;
+    }
+
+    // Executes a command on the reference engine and returns the elapsed nanoseconds; its exceptions propagate,
+    // since the reference output is authoritative and must never contain a failure report
+    private long runReference(String commandLine, StringWriter output) {
+        long start = System.nanoTime();
+        String result = Main.execute(reference, commandLine, new PrintWriter(output));
+        long elapsed = System.nanoTime() - start;
+        output.append(result);
+        return elapsed;
+    }
+
+    // Executes a command on the candidate engine and returns the elapsed nanoseconds; anything it throws,
+    // errors included, is recorded as its output so it shows up as a divergence instead of ending the run
+    private long runCandidate(String commandLine, StringWriter output) {
+        long start = System.nanoTime();
+        try {
+            String result = Main.execute(candidate, commandLine, new PrintWriter(output));
+            long elapsed = System.nanoTime() - start;
+            output.append(result);
+            return elapsed;
+        } catch (Throwable e) {
+            long elapsed = System.nanoTime() - start;
+            output.append("Engine threw ").append(e.toString());
+            return elapsed;
+        }
+    }
+
+    // Adds a command's latencies to the totals for its command name
+    private void record(String commandLine, long referenceNanos, long candidateNanos) {
+        int space = commandLine.indexOf(' ');
+        String command = space < 0 ? commandLine : commandLine.substring(0, space);
+        if (command.isEmpty()) command = "<empty>";
+        long[] totals = timings.get(command);
+        if (totals == null) {
+            totals = new long[3];
+            timings.put(command, totals);
+            commandOrder.add(command);
+        }
+        totals[0]++;
+        totals[1] += referenceNanos;
+        totals[2] += candidateNanos;
+    }
+
+    // Describes where two outputs first differ, with the command that produced them
+    private String describe(String commandLine, String expected, String actual) {
+        String[] expectedLines = expected.split("\n", -1);
+        String[] actualLines = actual.split("\n", -1);
+        int line = 0;
+        while (line < expectedLines.length && line < actualLines.length && expectedLines[line].equals(actualLines[line])) {
+            line++;
+        }
+        return "First divergence at command " + lineNumber + ": " + commandLine + "\n"
+                + "  output line " + (line + 1) + "\n"
+                + "  reference: " + (line < expectedLines.length ? expectedLines[line] : "<end of output>") + "\n"
+                + "  candidate: " + (line < actualLines.length ? actualLines[line] : "<end of output>");
+    }
+
+    // Returns true if every command so far produced identical output
+    public boolean matches() {
+        return divergences == 0;
+    }
+
+    // Prints the divergence report and total latency per command name for both engines
+    public void printSummary(PrintStream out) {
+        if (firstDivergence == null) {
+            out.println("Shadow run: all " + lineNumber + " commands matched.");
+        } else {
+            out.println("Shadow run: " + divergences + " of " + lineNumber + " commands diverged.");
+            out.println(firstDivergence);
+        }
+        out.println(String.format("%-30s %10s %14s %14s %9s", "command", "count", "reference us", "candidate us", "delta"));
+        for (String command : commandOrder) {
+            long[] totals = timings.get(command);
+            double referenceMicros = totals[1] / 1000.0;
+            double candidateMicros = totals[2] / 1000.0;
+            String delta = totals[1] == 0 ? "n/a" : String.format("%+.1f%%", 100.0 * (totals[2] - totals[1]) / totals[1]);
+            out.println(String.format("%-30s %10d %14.1f %14.1f %9s", command, totals[0], referenceMicros, candidateMicros, delta));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import java.io.IOException;
+import java.io.Reader;
+
+// Splits text into lines exactly where Scanner.nextLine does, but also reports the terminator of each line
+public class TextLineReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16; // Characters fetched from the reader at a time
+
+    private final Reader in; // Source of the text
+    private final char[] buffer = new char[BUFFER_SIZE]; // Characters read but not yet consumed
+    private int position; // Next unread character in the buffer
+    private int limit; // Number of valid characters in the buffer
+    private final StringBuilder line = new StringBuilder(); // Line being assembled
+    private String lineEnd; // Terminator of the last line returned, empty if the input ended without one
+
+    public TextLineReader(Reader in) {
+        this.in = in;
+    }
+
+    // Returns the next line without its terminator, or null at the end of the input
+    public String readLine() throws IOException {
+        line.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) {
+                lineEnd = "";
+                return line.length() == 0 ? null : line.toString(); // Last line had no terminator
+            }
+            char c = buffer[position++];
+            switch (c) {
+                case '\r':
+                    if ((position < limit || fill()) && buffer[position] == '\n') {
+                        position++;
+                        lineEnd = "\r\n";
+                    } else {
+                        lineEnd = "\r";
+                    }
+                    return line.toString();
+                case '\n':
+                    lineEnd = "\n";
+                    return line.toString();
+                case '\u2028':
+                    lineEnd = "\u2028";
+                    return line.toString();
+                case '\u2029':
+                    lineEnd = "\u2029";
+                    return line.toString();
+                case '\u0085':
+                    lineEnd = "\u0085";
+                    return line.toString();
+                default:
+                    line.append(c);
+                    break;
+            }
+        }
+    }
+
+    // Returns the terminator that ended the last line returned by readLine
+    public String getLineEnd() {
+        return lineEnd;
+    }
+
+    // Refills the empty buffer, returning false at the end of the input
+    private boolean fill() throws IOException {
+        int count;
+        do {
+            count = in.read(buffer, 0, buffer.length);
+        } while (count == 0);
+        if (count < 0) return false;
+        position = 0;
+        limit = count;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
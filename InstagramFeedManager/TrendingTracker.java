@@ -0,0 +1,128 @@
+import java.util.Arrays;
+
+public class TrendingTracker {
+    private static final int BUCKET_COUNT = 16; // Number of time slices kept in the sliding window
+    private static final int BUCKET_SPAN = 1024; // Like events covered by each slice
+    private static final int COUNTERS = 64; // Space-Saving counters per slice
+    public static final int MAX_WINDOW = BUCKET_COUNT * BUCKET_SPAN; // Longest window that can be queried
+
+    private final Post[][] keys; // Monitored posts per slice
+    private final int[][] counts; // Estimated like counts per slice, parallel to keys
+    private final int[] used; // Number of counters in use per slice
+    private long events; // Total like events recorded so far
+
+    // Merge scratch space, sized for every counter of every slice
+    private final Post[] mergedKeys;
+    private final int[] mergedCounts;
+    private final int[] mergeTable; // Open-addressing index into the merged arrays, -1 when empty
+
+    public TrendingTracker() {
+        keys = new Post[BUCKET_COUNT][COUNTERS];
+        counts = new int[BUCKET_COUNT][COUNTERS];
+        used = new int[BUCKET_COUNT];
+        mergedKeys = new Post[BUCKET_COUNT * COUNTERS];
+        mergedCounts = new int[BUCKET_COUNT * COUNTERS];
+        mergeTable = new int[BUCKET_COUNT * COUNTERS * 2];
+    }
+
+    // Records a like event using the Space-Saving update on the current slice
+    public void recordLike(Post post) {
+        int bucket = (int) ((events / BUCKET_SPAN) % BUCKET_COUNT);
+        if (events % BUCKET_SPAN == 0) {
+            used[bucket] = 0; // Starting a new slice evicts the oldest one
+        }
+        events++;
+
+        Post[] bucketKeys = keys[bucket];
+        int[] bucketCounts = counts[bucket];
+        int min = 0;
+        for (int i = 0; i < used[bucket]; i++) {
+            if (bucketKeys[i] == post) {
+                bucketCounts[i]++; // Already monitored
+                return;
+            }
+            if (bucketCounts[i] < bucketCounts[min]) {
+                min = i;
+            }
+        }
+        if (used[bucket] < COUNTERS) {
+            bucketKeys[used[bucket]] = post; // Free counter available
+            bucketCounts[used[bucket]] = 1;
+            used[bucket]++;
+        } else {
+            bucketKeys[min] = post; // Replace the smallest counter and inherit its count as error
+            bucketCounts[min]++;
+        }
+    }
+
+    // Returns the top k posts by estimated likes over at least the most recent window like events, as far as slices allow
+    public String trending(int k, int window) {
+        // The current slice may be partly filled; add enough older full slices to cover the rest of the window
+        int partialFill = events == 0 ? 0 : (int) ((events - 1) % BUCKET_SPAN) + 1;
+        int bucketsWanted = window <= partialFill ? 1 : (window - partialFill + BUCKET_SPAN - 1) / BUCKET_SPAN + 1;
+        long slicesRecorded = (events + BUCKET_SPAN - 1) / BUCKET_SPAN;
+        int buckets = (int) Math.min(Math.min(bucketsWanted, BUCKET_COUNT), slicesRecorded);
+        long covered = buckets == 0 ? 0 : partialFill + (long) (buckets - 1) * BUCKET_SPAN; // Like events actually merged
+
+        // Merge the newest slices, summing the estimates of posts seen in several of them
+        int merged = 0;
+        Arrays.fill(mergeTable, -1);
+        int current = (int) (((events - 1) / BUCKET_SPAN) % BUCKET_COUNT);
+        for (int b = 0; b < buckets; b++) {
+            int bucket = (current - b + BUCKET_COUNT) % BUCKET_COUNT;
+            for (int i = 0; i < used[bucket]; i++) {
+                Post post = keys[bucket][i];
+                int slot = (System.identityHashCode(post) & 0x7fffffff) % mergeTable.length;
+                while (mergeTable[slot] != -1 && mergedKeys[mergeTable[slot]] != post) {
+                    slot = (slot + 1) % mergeTable.length; // Linear probing
+                }
+                if (mergeTable[slot] == -1) {
+                    mergeTable[slot] = merged;
+                    mergedKeys[merged] = post;
+                    mergedCounts[merged] = 0;
+                    merged++;
+                }
+                mergedCounts[mergeTable[slot]] += counts[bucket][i];
+            }
+        }
+
+        StringBuilder log = new StringBuilder("Trending posts in the last " + covered + " likes:");
+        int count = 0;
+        while (count < k && count < merged) {
+            int best = count; // Selection step: move the next best entry into position
+            for (int i = count + 1; i < merged; i++) {
+                if (compare(i, best) > 0) {
+                    best = i;
+                }
+            }
+            swap(count, best);
+            log.append("\n").append(mergedKeys[count].getPostId())
+                    .append(", Likes: ").append(mergedCounts[count]);
+            count++;
+        }
+
+        if (count < k) {
+            log.append("\nNo more trending posts.");
+        }
+
+        Arrays.fill(mergedKeys, 0, merged, null); // Do not pin posts between queries
+        return log.toString();
+    }
+
+    // Compares merged entries by estimated likes, then by post ID like the feed ordering
+    private int compare(int i, int j) {
+        if (mergedCounts[i] != mergedCounts[j]) {
+            return mergedCounts[i] > mergedCounts[j] ? 1 : -1;
+        }
+        return mergedKeys[i].getPostId().compareTo(mergedKeys[j].getPostId());
+    }
+
+    private void swap(int i, int j) {
+        Post tempKey = mergedKeys[i];
+        mergedKeys[i] = mergedKeys[j];
+        mergedKeys[j] = tempKey;
+        int tempCount = mergedCounts[i];
+        mergedCounts[i] = mergedCounts[j];
+        mergedCounts[j] = tempCount;
+    }
+}
@@ -1,14 +1,16 @@
 public class User {
-    private String userId; // Unique identifier for the user
+    private final EntityStore store; // Columnar store holding the user ID
+    private final int ordinal; // Row of this user in the store's columns
     private CustomHashSet<User> followers;  // Set containing users who follow this user
     private CustomHashSet<User> following;  // Set containing users this user is following
     private CustomHashSet<Post> posts;      // Set containing posts made by this user
     private CustomHashSet<Post> seenPosts;  // Set containing posts this user has seen
     private CustomHashSet<Post> likedPosts;  // Set containing posts this user has liked
 
-    // Constructor initializes the user ID and the sets for managing relationships and content
-    public User(String userId) {
-        this.userId = userId;
+    // Constructor binds the view to its row and initializes the sets; users are created through EntityStore.createUser
+    User(EntityStore store, int ordinal) {
+        this.store = store;
+        this.ordinal = ordinal;
         this.followers = new CustomHashSet<>();
         this.following = new CustomHashSet<>();
         this.posts = new CustomHashSet<>();
@@ -55,7 +57,12 @@ public class User {
 
     // Returns the user ID
     public String getUserId() {
-        return userId;
+        return store.getUserId(ordinal);
+    }
+
+    // Returns the dense ordinal of this user
+    public int getOrdinal() {
+        return ordinal;
     }
 
     // Returns the set of followers